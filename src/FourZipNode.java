@@ -64,6 +64,13 @@ public class FourZipNode {
      */
     public int getValue() { return this.value; }
 
+    /**
+     * Check whether this node was constructed without children.
+     *
+     * @return true if this node has no children
+     */
+    public boolean isLeaf() { return this.children == null; }
+
     /**
      * Get one of the child nodes.
      *
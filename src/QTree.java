@@ -28,25 +28,51 @@ public class QTree {
     }
 
     /**
-     *Parse the file being read and find the next FourZipNode subtree. This method is called recursively to read and create the node's children.
-     *Recursively speaking, the input file stream contains the root node's value followed when appropriate by the string
+     *Create a walker that parses a compressed file into the FourZipNode tree. Its first step reads the file size,
+     *and each step after that reads one value per region.
+     *The input file stream contains the root node's value followed when appropriate by the string
      *values of each of its sub-nodes, going in a L-to-R, top-to-bottom order (quadrants UL, UR, LL, LR).
-     *@param file - a file that may have already been partially parsed
-     *@return the root node of the subtree that has been created
-     *@throws IOException - if there is any problem with the file, or file format
+     *@param file - the compressed file, positioned at its first line
+     *@return the walker that builds the tree; once it is done the tree replaces this QTree's image
      */
-    private static FourZipNode parse(BufferedReader file) throws IOException{
-        FourZipNode result;
-        int value = Integer.parseInt(file.readLine());
-        if(value != -1){
-            result = new FourZipNode(value);
-        }else {
-            result = new FourZipNode(parse(file),
-                    parse(file),
-                    parse(file),
-                    parse(file));
-        }
-        return result;
+    public QTreeWalker<IOException> parseWalker(BufferedReader file){
+        return new QTreeWalker<>(0, new QTreeVisitor<IOException>() {
+            private int size;
+
+            @Override
+            public int start(int ignored) throws IOException {
+                String line = file.readLine();
+                if(line == null){
+                    throw new IOException("The compressed file is empty");
+                }
+                size = Integer.parseInt(line);
+                return (int)(Math.sqrt(size));
+            }
+
+            @Override
+            public FourZipNode visit(FourZipNode node, int row, int col, int side) throws IOException {
+                String line = file.readLine();
+                if(line == null){
+                    throw new IOException("Unexpected end of the compressed file");
+                }
+                int value = Integer.parseInt(line);
+                if(value != QUAD_SPLIT){
+                    return new FourZipNode(value);
+                }
+                if(side <= 1){
+                    throw new IOException("A region of side " + side + " cannot be split");
+                }
+                return QTreeWalker.SPLIT;
+            }
+
+            @Override
+            public void done(FourZipNode result) {
+                rawSize = size;
+                dim = (int)(Math.sqrt(size));
+                rawImage = null;
+                root = result;
+            }
+        });
     }
 
     /**
@@ -62,49 +88,38 @@ public class QTree {
     public static QTree compressedFromFile(String fileName) throws IOException{
         QTree theQTree = new QTree();
         try(BufferedReader reader = new BufferedReader(new FileReader(fileName))){
-            theQTree.rawSize = Integer.parseInt(reader.readLine());
-            theQTree.dim = (int)(Math.sqrt(theQTree.rawSize));
-            theQTree.root = parse(reader);
+            theQTree.parseWalker(reader).run();
         }
         return theQTree;
     }
 
-    /**
-     * A preorder (parent, left, right) traversal of a node. It returns a string
-     * which is empty if the node is null. Otherwise it returns a
-     * string that concatenates the current node's value with the values
-     * of the 4 sub-regions (with spaces between).
-     * @param node - the node being traversed on
-     * @return the string of the node
-     */
-    private String preorder(FourZipNode node){
-        if(node == null) return null;
-        String result = "";
-        if(node.getValue() != QUAD_SPLIT){
-            result += node.getValue() +" ";
-        }
-        if(node.getValue() == -1) {
-            result += "( ";
-            result += preorder(node.getChild(Quadrant.UL));
-            result += preorder(node.getChild(Quadrant.UR));
-            result += preorder(node.getChild(Quadrant.LL));
-            result += preorder(node.getChild(Quadrant.LR));
-            result += ") ";
-        }
-        return result;
-
-    }
-
     /**
      * Return a string that represents a preorder traversal of the tree. The node's (grayscale) image value is
      * returned as a decimal string. However when the node's value is QUAD_SPLIT that value is not shown.
      * Instead a left parenthesis is added before the children's to-string methods are called,
      * and a right parenthesis is added afterwards. Spaces are inserted between all items.
-     * @return the qtree string representation
+     * @return the qtree string representation, or null if there is no tree
      */
     public String toString(){
-        String result = preorder(root);
-        return result;
+        if(root == null) return null;
+        StringBuilder result = new StringBuilder();
+        new QTreeWalker<RuntimeException>(root, dim, new QTreeVisitor<RuntimeException>() {
+            @Override
+            public FourZipNode visit(FourZipNode current, int row, int col, int side) {
+                if(current.getValue() != QUAD_SPLIT){
+                    result.append(current.getValue()).append(" ");
+                }else{
+                    result.append("( ");
+                }
+                return current;
+            }
+
+            @Override
+            public void leave(FourZipNode current, int row, int col, int side) {
+                result.append(") ");
+            }
+        }).run();
+        return result.toString();
     }
 
     /**
@@ -144,30 +159,6 @@ public class QTree {
             return dim;
     }
 
-    /**
-     * Convert a subtree of the FourZip tree into a square section of the raw image matrix.
-     * The main idea is that we are working with a tree whose root represents the entire 2^n x 2^n rawImage.
-     * @param coord - the coordinate of the upper left corner of the square to be filled
-     * @param dim2 - both the length and width of the square to be filled
-     * @param node - the root of the FourZip subtree that will be converted
-     */
-    private void uncompress(Coordinate coord, int dim2, FourZipNode node){
-        if(node.getValue() != -1){
-            for(int i = coord.getRow();i<coord.getRow()+dim2;i++){
-                for(int j = coord.getCol();j<coord.getCol()+dim2;j++){
-                    rawImage[i][j] = node.getValue();
-                }
-            }
-
-        }else{
-            uncompress(new Coordinate(coord.getRow(),coord.getCol()),dim2/2,node.getChild(Quadrant.UL));
-            uncompress(new Coordinate(coord.getRow(),coord.getCol()+dim2/2),dim2/2,node.getChild(Quadrant.UR));
-            uncompress(new Coordinate(coord.getRow()+dim2/2,coord.getCol()),dim2/2,node.getChild(Quadrant.LL));
-            uncompress(new Coordinate(coord.getRow()+dim2/2,coord.getCol()+dim2/2),dim2/2,node.getChild(Quadrant.LR));
-
-        }
-    }
-
     /**
      * Load a raw image. The input file is ASCII text. It contains a series of grayscale values
      * as decimal numbers (0-255). The dimension is assumed square,
@@ -201,19 +192,19 @@ public class QTree {
 
     /**
      * Check to see whether a region in the raw image contains the same value.
-     * This routine is used by the private compress routine so that it can construct the nodes in the tree.
-     * @param start - the starting coordinate in the region
-     * @param size - the size of the region
+     * This routine is used by the compress walker so that it can construct the nodes in the tree.
+     * @param row - the row of the upper left corner of the region
+     * @param col - the column of the upper left corner of the region
+     * @param side - both the length and width of the region
      * @return whether the region can be compressed or not
      */
-    private boolean canCompressBlock(Coordinate start, int size){
-        if(size == 1){
+    private boolean canCompressBlock(int row, int col, int side){
+        if(side == 1){
             return true;
         }
         int value = -1;
-        int side = (int)Math.sqrt(size);
-        for (int i = start.getRow();i<start.getRow()+side;i++){
-            for (int j = start.getCol();j<start.getCol()+side;j++){
+        for (int i = row;i<row+side;i++){
+            for (int j = col;j<col+side;j++){
                 if(value==rawImage[i][j] || value == -1){
                     value = rawImage[i][j];
                 }else{
@@ -225,21 +216,29 @@ public class QTree {
     }
 
     /**
-     * This is the core compression routine. Its job is to work over a region of the rawImage and compress it.
-     * @param start - the start coordinate for this region
-     * @param size - the size this region represents
-     * @return
+     * This is the core compression routine. It creates a walker that works over the regions of the rawImage
+     * and builds the FourZip tree, splitting each region that cannot be compressed into one value.
+     * @return the walker that builds the tree; once it is done the tree is this QTree's compressed image
+     * @throws FourZipException - if there is no raw image (yet)
      */
-    private FourZipNode compress(Coordinate start, int size){
-        if(canCompressBlock(start,size)){
-            root = new FourZipNode(rawImage[start.getRow()][start.getCol()]);
-        }else{
-            root = new FourZipNode(compress(new Coordinate(start.getRow(),start.getCol()),(int)((Math.sqrt(size)/2)*(Math.sqrt(size))/2)),
-                    compress(new Coordinate(start.getRow(),start.getCol()+(int)(Math.sqrt(size)/2)),(int)((Math.sqrt(size)/2)*(Math.sqrt(size))/2)),
-                    compress(new Coordinate(start.getRow()+(int)(Math.sqrt(size)/2),start.getCol()),(int)((Math.sqrt(size)/2)*(Math.sqrt(size))/2)),
-                    compress(new Coordinate(start.getRow()+(int)(Math.sqrt(size)/2),start.getCol()+(int)(Math.sqrt(size)/2)),(int)((Math.sqrt(size)/2)*(Math.sqrt(size))/2)));
+    public QTreeWalker<RuntimeException> compressWalker() throws FourZipException{
+        if(rawImage == null){
+            throw new FourZipException("The raw image does not exist");
         }
-        return root;
+        return new QTreeWalker<>(dim, new QTreeVisitor<RuntimeException>() {
+            @Override
+            public FourZipNode visit(FourZipNode node, int row, int col, int side) {
+                if(canCompressBlock(row, col, side)){
+                    return new FourZipNode(rawImage[row][col]);
+                }
+                return QTreeWalker.SPLIT;
+            }
+
+            @Override
+            public void done(FourZipNode result) {
+                root = result;
+            }
+        });
     }
 
     /**
@@ -247,10 +246,38 @@ public class QTree {
      * @throws FourZipException - if there is no raw image (yet)
      */
     public void compress() throws FourZipException{
-        if(rawImage == null){
-            throw new FourZipException("The raw image does not exist");
+        compressWalker().run();
+    }
+
+    /**
+     * Create a walker that converts the internal FourZip tree into the raw image matrix,
+     * filling in the square section of each leaf.
+     * @return the walker that fills the image; once it is done the image is this QTree's raw image
+     * @throws FourZipException - if not compressed image has been read in.
+     */
+    public QTreeWalker<RuntimeException> uncompressWalker() throws FourZipException{
+        if(root == null){
+            throw new FourZipException("Compressed image has been read in");
         }
-        compress(Coordinate.ORIGIN,rawSize);
+        int[][] image = new int[dim][dim];
+        return new QTreeWalker<>(root, dim, new QTreeVisitor<RuntimeException>() {
+            @Override
+            public FourZipNode visit(FourZipNode node, int row, int col, int side) {
+                if(node.getValue() != QUAD_SPLIT){
+                    for(int i = row;i<row+side;i++){
+                        for(int j = col;j<col+side;j++){
+                            image[i][j] = node.getValue();
+                        }
+                    }
+                }
+                return node;
+            }
+
+            @Override
+            public void done(FourZipNode result) {
+                rawImage = image;
+            }
+        });
     }
 
     /**
@@ -259,11 +286,7 @@ public class QTree {
      * @post getRawImage() and getRawSize() are now legal to be called.
      */
     public void uncompress() throws FourZipException{
-        if(root == null){
-            throw new FourZipException("Compressed image has been read in");
-        }
-        rawImage = new int[dim][dim];
-        uncompress(Coordinate.ORIGIN,dim,root);
+        uncompressWalker().run();
     }
 
 
@@ -280,29 +303,36 @@ public class QTree {
             throw new FourZipException("Compressed image has been read in");
         }
         try(BufferedWriter writer = new BufferedWriter(new FileWriter(outFile))){
-            writer.write(Integer.toString(rawSize)+"\n");
-            writeCompressed(root,writer);
+            writeWalker(writer).run();
         }
     }
 
     /**
-     * The private writer is a recursive helper routine that writes out the compressed rawImage.
-     * It goes through the tree in preorder fashion writing out the values of each node as they are encountered.
-     * @param node - the current node in the tree
+     * Create a walker that writes out the compressed rawImage. Its first step writes the raw image size,
+     * then it goes through the tree in preorder fashion writing out the values of each node as they are encountered.
      * @param writer - the writer to write the node data out to
-     * @throws IOException - if there are issues with the writer
+     * @return the walker that writes the tree
+     * @throws FourZipException - if the file has not been compressed yet
      */
-    private void writeCompressed(FourZipNode node, BufferedWriter writer) throws IOException{
-        if(node != null) {
-            writer.write(node.getValue() + "\n");
-            compressedSize += 1;
-            if (node.getValue() == -1) {
-                writeCompressed(node.getChild(Quadrant.UL), writer);
-                writeCompressed(node.getChild(Quadrant.UR), writer);
-                writeCompressed(node.getChild(Quadrant.LL), writer);
-                writeCompressed(node.getChild(Quadrant.LR), writer);
-            }
+    public QTreeWalker<IOException> writeWalker(BufferedWriter writer) throws FourZipException{
+        if(root == null){
+            throw new FourZipException("Compressed image has been read in");
         }
+        int size = rawSize;
+        return new QTreeWalker<>(root, dim, new QTreeVisitor<IOException>() {
+            @Override
+            public int start(int dim) throws IOException {
+                writer.write(Integer.toString(size)+"\n");
+                return dim;
+            }
+
+            @Override
+            public FourZipNode visit(FourZipNode node, int row, int col, int side) throws IOException {
+                writer.write(node.getValue() + "\n");
+                compressedSize += 1;
+                return node;
+            }
+        });
     }
 
     /**
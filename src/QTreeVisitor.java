@@ -0,0 +1,52 @@
+/**
+ * A callback interface for the operations that run on a {@link QTreeWalker}.
+ * The walker calls {@link #start} first, then {@link #visit} once for every region it reaches,
+ * in preorder (quadrants UL, UR, LL, LR), {@link #leave} once the four sub-regions of a
+ * split region have all been handled, and {@link #done} when the whole tree has been handled.
+ *
+ * @param <X> the checked exception the callbacks may throw, or RuntimeException if none
+ */
+public interface QTreeVisitor<X extends Exception> {
+
+    /**
+     * Start the operation, before the first region is visited.
+     * @param dim - the square dimension the walker was created with
+     * @return the square dimension of the whole image, normally dim
+     * @throws X - if the operation fails
+     */
+    default int start(int dim) throws X {
+        return dim;
+    }
+
+    /**
+     * Visit a square region of the image.
+     * When walking an existing tree, node is the tree's node for this region and is normally returned as is.
+     * When building a tree, node is null and the visitor decides what the region becomes: a leaf node,
+     * or {@link QTreeWalker#SPLIT} to have the walker build the region from its four sub-regions.
+     * @param node - the node for this region, or null when building
+     * @param row - the row of the upper left corner of the region
+     * @param col - the column of the upper left corner of the region
+     * @param side - both the length and width of the region
+     * @return the node for this region; a QUAD_SPLIT node makes the walker descend into the sub-regions
+     * @throws X - if the operation fails
+     */
+    FourZipNode visit(FourZipNode node, int row, int col, int side) throws X;
+
+    /**
+     * Leave a split region after all four of its sub-regions have been visited.
+     * @param node - the split node for this region (the newly built one when building)
+     * @param row - the row of the upper left corner of the region
+     * @param col - the column of the upper left corner of the region
+     * @param side - both the length and width of the region
+     * @throws X - if the operation fails
+     */
+    default void leave(FourZipNode node, int row, int col, int side) throws X {
+    }
+
+    /**
+     * Finish the operation once the whole tree has been handled.
+     * @param root - the root of the walked tree, or of the built tree when building
+     */
+    default void done(FourZipNode root) {
+    }
+}
@@ -0,0 +1,250 @@
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * An iterative preorder traversal of a FourZip tree over the square regions of its image.
+ * Instead of recursing, the walker keeps an explicit stack with one frame per split region
+ * on the current path. Only regions of side 2 or more may be split, so the stack never grows
+ * deeper than log2 of the image dimension, even for a malformed tree.
+ * <p>
+ * The work is done one region at a time by {@link #step()}, which lets a caller run the whole
+ * traversal with {@link #run()}, run it in slices with {@link #run(int)}, check progress with
+ * {@link #getVisitedCount()}, or stop it early with {@link #cancel()}.
+ * <p>
+ * If the visitor or the walker itself throws, the walker has failed: it cannot be resumed,
+ * and later calls to step() throw IllegalStateException.
+ * <p>
+ * A walker either walks an existing tree, or builds a new one from the nodes its visitor returns.
+ * A walker is not thread safe: only {@link #cancel()} may be called from a thread other than the one running it.
+ *
+ * @param <X> the checked exception the visitor may throw
+ */
+public class QTreeWalker<X extends Exception> {
+
+    /**
+     * The node a building visitor returns for a region that has to be split into four sub-regions.
+     */
+    public static final FourZipNode SPLIT = new FourZipNode(QTree.QUAD_SPLIT);
+
+    private static final Quadrant[] QUADRANTS = Quadrant.values();
+
+    /**
+     * A split region on the current path whose sub-regions are being visited.
+     */
+    private static class Frame {
+        private final FourZipNode node;
+        private final int row;
+        private final int col;
+        private final int side;
+        private final FourZipNode[] children;
+        private int next = 0;
+
+        Frame(FourZipNode node, int row, int col, int side, boolean building) {
+            this.node = node;
+            this.row = row;
+            this.col = col;
+            this.side = side;
+            this.children = building ? new FourZipNode[QUADRANTS.length] : null;
+        }
+    }
+
+    private final QTreeVisitor<X> visitor;
+    private final FourZipNode root;
+    private int dim;
+    private final boolean building;
+    private final Deque<Frame> stack = new ArrayDeque<>();
+    private FourZipNode result;
+    private boolean started = false;
+    private boolean done = false;
+    private boolean failed = false;
+    private volatile boolean cancelled = false;
+    private int visitedCount = 0;
+
+    /**
+     * Create a walker over an existing tree.
+     * @param root - the root of the tree to walk
+     * @param dim - the square dimension of the image the root represents
+     * @param visitor - the operation to run on each region
+     */
+    public QTreeWalker(FourZipNode root, int dim, QTreeVisitor<X> visitor) {
+        this(root, dim, visitor, false);
+    }
+
+    /**
+     * Create a walker that builds a new tree from the nodes its visitor returns.
+     * @param dim - the square dimension of the image the tree will represent
+     * @param visitor - the operation that decides the node for each region
+     */
+    public QTreeWalker(int dim, QTreeVisitor<X> visitor) {
+        this(null, dim, visitor, true);
+    }
+
+    private QTreeWalker(FourZipNode root, int dim, QTreeVisitor<X> visitor, boolean building) {
+        this.root = root;
+        this.dim = dim;
+        this.visitor = visitor;
+        this.building = building;
+    }
+
+    /**
+     * Handle the next region of the traversal.
+     * @return true if there is more work to do, false if the traversal is finished or cancelled
+     * @throws X - if the visitor fails
+     * @throws IllegalStateException - if a split node has no children, a region too small to split is split,
+     *                                 or an earlier step failed
+     */
+    public boolean step() throws X {
+        if(failed){
+            throw new IllegalStateException("The traversal failed and cannot be resumed");
+        }
+        if(done || cancelled){
+            return false;
+        }
+        boolean stepped = false;
+        try{
+            advance();
+            stepped = true;
+        }finally{
+            if(!stepped){
+                failed = true;
+            }
+        }
+        return !done;
+    }
+
+    /**
+     * Do the work of one step: start the walk, visit the next sub-region, or leave a finished split region.
+     */
+    private void advance() throws X {
+        if(!started){
+            started = true;
+            dim = visitor.start(dim);
+            enter(root, 0, 0, dim);
+        }else{
+            Frame top = stack.peek();
+            if(top.next == QUADRANTS.length){
+                FourZipNode node = building ? new FourZipNode(top.children) : top.node;
+                visitor.leave(node, top.row, top.col, top.side);
+                stack.pop();
+                finish(node);
+            }else{
+                Quadrant quadrant = QUADRANTS[top.next];
+                int half = top.side / 2;
+                enter(building ? null : top.node.getChild(quadrant),
+                        top.row + quadrant.rowDelta(half),
+                        top.col + quadrant.colDelta(half),
+                        half);
+            }
+        }
+    }
+
+    /**
+     * Run the traversal until it is finished or cancelled.
+     * @throws X - if the visitor fails
+     */
+    public void run() throws X {
+        while(step()){
+        }
+    }
+
+    /**
+     * Run at most the given number of steps of the traversal.
+     * Calling this again resumes where the previous call stopped.
+     * @param maxSteps - the most steps to take
+     * @return true if there is more work to do, false if the traversal is finished or cancelled
+     * @throws X - if the visitor fails
+     */
+    public boolean run(int maxSteps) throws X {
+        for(int i = 0; i < maxSteps; i++){
+            if(!step()){
+                return false;
+            }
+        }
+        return !done && !cancelled;
+    }
+
+    /**
+     * Stop the traversal. Later calls to step() or run() do nothing.
+     * This may be called from another thread while the traversal is running.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Check whether the traversal was stopped by cancel().
+     * @return whether the traversal is cancelled
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Check whether a step threw, which ends the traversal for good.
+     * @return whether the traversal failed
+     */
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Check whether every region has been handled.
+     * @return whether the traversal is finished
+     */
+    public boolean isDone() {
+        return done;
+    }
+
+    /**
+     * Get the number of regions visited so far.
+     * @return the visited region count
+     */
+    public int getVisitedCount() {
+        return visitedCount;
+    }
+
+    /**
+     * Get the root of the walked tree, or of the built tree when building.
+     * @return the root node, or null if the traversal is not finished
+     */
+    public FourZipNode getResult() {
+        return result;
+    }
+
+    /**
+     * Visit a region and either push it to have its sub-regions visited, or finish it as a leaf.
+     */
+    private void enter(FourZipNode node, int row, int col, int side) throws X {
+        FourZipNode visited = visitor.visit(node, row, col, side);
+        boolean split = visited != null && visited.getValue() == QTree.QUAD_SPLIT;
+        if(split && side <= 1){
+            throw new IllegalStateException("A region of side " + side + " cannot be split");
+        }
+        if(split && !building && visited.isLeaf()){
+            throw new IllegalStateException("A split node has no children");
+        }
+        visitedCount += 1;
+        if(split){
+            stack.push(new Frame(visited, row, col, side, building));
+        }else{
+            finish(visited);
+        }
+    }
+
+    /**
+     * Hand a finished region's node to its parent, or keep it as the result if it is the root.
+     */
+    private void finish(FourZipNode node) {
+        Frame parent = stack.peek();
+        if(parent == null){
+            result = node;
+            done = true;
+            visitor.done(node);
+        }else{
+            if(building){
+                parent.children[parent.next] = node;
+            }
+            parent.next += 1;
+        }
+    }
+}
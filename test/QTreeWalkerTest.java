@@ -0,0 +1,292 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Checks for QTreeWalker and the QTree operations that run on it.
+ * Run with java QTreeWalkerTest; a failed check throws an AssertionError.
+ */
+public class QTreeWalkerTest {
+
+    private static final int DIM = 8;
+
+    public static void main(String[] args) throws Exception {
+        testRoundTrip();
+        testSteppedRunMatchesRun();
+        testCancel();
+        testVisitedCount();
+        testFailedVisitIsFinal();
+        testFailedLeaveIsFinal();
+        testSplitLeafIsRejected();
+        testWalkDeeperThanImageIsRejected();
+        testMalformedParse();
+        testFailedParseIsFinal();
+        testParseWalkerDoesNothingUntilRun();
+        testWriteBeforeCompress();
+        System.out.println("All QTreeWalker tests passed");
+    }
+
+    /**
+     * Fail with the given message unless the condition holds.
+     */
+    private static void check(boolean condition, Object message) {
+        if(!condition){
+            throw new AssertionError(message);
+        }
+    }
+
+    /**
+     * Check that a step of the walker throws IllegalStateException because an earlier step failed.
+     */
+    private static void checkStaysFailed(QTreeWalker<?> walker) throws Exception {
+        check(walker.isFailed(), "the walker should have failed");
+        try{
+            walker.step();
+            check(false, "a failed walker should not step");
+        }catch(IllegalStateException e){
+            // expected
+        }
+        check(!walker.isDone(), "a failed walker should not be done");
+        check(walker.getResult() == null, "a failed walker should have no result");
+    }
+
+    /**
+     * A tree with one split root over four leaves, 1 2 3 4.
+     */
+    private static FourZipNode fourLeaves() {
+        return new FourZipNode(new FourZipNode(1), new FourZipNode(2), new FourZipNode(3), new FourZipNode(4));
+    }
+
+    /**
+     * Write a raw image with one uniform quadrant and a mixed remainder, and return its file.
+     */
+    private static File rawImageFile() throws IOException {
+        File file = File.createTempFile("raw", ".txt");
+        file.deleteOnExit();
+        try(PrintWriter writer = new PrintWriter(file)){
+            for(int i = 0;i<DIM;i++){
+                for(int j = 0;j<DIM;j++){
+                    writer.println(i < DIM/2 && j < DIM/2 ? 100 : (i*3 + j) % 4 * 50);
+                }
+            }
+        }
+        return file;
+    }
+
+    private static void testRoundTrip() throws Exception {
+        File raw = rawImageFile();
+        QTree original = QTree.rawFromFile(raw.getPath());
+        original.compress();
+        File compressed = File.createTempFile("compressed", ".txt");
+        compressed.deleteOnExit();
+        original.writeCompressed(compressed.getPath());
+
+        QTree copy = QTree.compressedFromFile(compressed.getPath());
+        check(copy.toString().equals(original.toString()), copy);
+        copy.uncompress();
+        check(Arrays.deepEquals(copy.getRawImage(), original.getRawImage()), "Arrays.deepEquals(copy.getRawImage(), original.getRawImage())");
+        check(copy.getRawSize() == DIM*DIM, "copy.getRawSize() == DIM*DIM");
+    }
+
+    private static void testSteppedRunMatchesRun() throws Exception {
+        QTree whole = QTree.rawFromFile(rawImageFile().getPath());
+        whole.compressWalker().run();
+
+        QTree stepped = QTree.rawFromFile(rawImageFile().getPath());
+        QTreeWalker<RuntimeException> walker = stepped.compressWalker();
+        int slices = 0;
+        while(walker.run(1)){
+            slices += 1;
+        }
+        check(walker.isDone(), "walker.isDone()");
+        check(slices > 1, "slices > 1");
+        check(stepped.toString().equals(whole.toString()), stepped);
+    }
+
+    private static void testCancel() {
+        List<Integer> values = new ArrayList<>();
+        QTreeWalker<RuntimeException> walker = new QTreeWalker<>(fourLeaves(), 2, (node, row, col, side) -> {
+            values.add(node.getValue());
+            return node;
+        });
+        check(walker.run(2), "walker.run(2)");
+        walker.cancel();
+        check(!walker.step(), "!walker.step()");
+        walker.run();
+        check(walker.isCancelled(), "walker.isCancelled()");
+        check(!walker.isDone(), "!walker.isDone()");
+        check(walker.getResult() == null, "walker.getResult() == null");
+        check(values.equals(Arrays.asList(-1, 1)), values);
+    }
+
+    private static void testVisitedCount() throws Exception {
+        QTreeWalker<RuntimeException> walker = new QTreeWalker<>(fourLeaves(), 2, (node, row, col, side) -> node);
+        check(walker.getVisitedCount() == 0, "walker.getVisitedCount() == 0");
+        walker.run(3);
+        check(walker.getVisitedCount() == 3, "walker.getVisitedCount() == 3");
+        walker.run();
+        check(walker.getVisitedCount() == 5, "walker.getVisitedCount() == 5");
+
+        QTree tree = QTree.rawFromFile(rawImageFile().getPath());
+        QTreeWalker<RuntimeException> compress = tree.compressWalker();
+        compress.run();
+        int nodes = tree.toString().replace("( ", "-1 ").replace(") ", "").trim().split(" ").length;
+        check(compress.getVisitedCount() == nodes, compress.getVisitedCount());
+    }
+
+    private static void testFailedVisitIsFinal() throws Exception {
+        List<Integer> values = new ArrayList<>();
+        QTreeWalker<IOException> walker = new QTreeWalker<>(fourLeaves(), 2, (node, row, col, side) -> {
+            if(node.getValue() == 2){
+                throw new IOException("write failed");
+            }
+            values.add(node.getValue());
+            return node;
+        });
+        try{
+            walker.run();
+            check(false, "the visitor should have thrown");
+        }catch(IOException e){
+            check(walker.getVisitedCount() == 2, walker.getVisitedCount());
+        }
+        checkStaysFailed(walker);
+        check(values.equals(Arrays.asList(-1, 1)), values);
+    }
+
+    private static void testFailedLeaveIsFinal() throws Exception {
+        boolean[] finished = {false};
+        QTreeWalker<IOException> walker = new QTreeWalker<>(fourLeaves(), 2, new QTreeVisitor<IOException>() {
+            @Override
+            public FourZipNode visit(FourZipNode node, int row, int col, int side) {
+                return node;
+            }
+
+            @Override
+            public void leave(FourZipNode node, int row, int col, int side) throws IOException {
+                throw new IOException("write failed");
+            }
+
+            @Override
+            public void done(FourZipNode root) {
+                finished[0] = true;
+            }
+        });
+        try{
+            walker.run();
+            check(false, "the visitor should have thrown");
+        }catch(IOException e){
+            // expected
+        }
+        checkStaysFailed(walker);
+        check(!finished[0], "done should not be called after a failure");
+    }
+
+    private static void testSplitLeafIsRejected() throws Exception {
+        QTreeWalker<RuntimeException> walking = new QTreeWalker<>(new FourZipNode(QTree.QUAD_SPLIT), 2,
+                (node, row, col, side) -> node);
+        try{
+            walking.run();
+            check(false, "a split node without children should be rejected");
+        }catch(IllegalStateException e){
+            // expected
+        }
+
+        int[] calls = {0};
+        QTreeWalker<RuntimeException> building = new QTreeWalker<>(2, (node, row, col, side) -> {
+            calls[0] += 1;
+            return QTreeWalker.SPLIT;
+        });
+        try{
+            building.run();
+            check(false, "a region of side 1 should not be split");
+        }catch(IllegalStateException e){
+            check(building.getVisitedCount() == 1, building.getVisitedCount());
+        }
+        checkStaysFailed(building);
+        check(calls[0] == 2, calls[0]);
+    }
+
+    private static void testWalkDeeperThanImageIsRejected() throws Exception {
+        FourZipNode deep = new FourZipNode(fourLeaves(), fourLeaves(), fourLeaves(), fourLeaves());
+        QTreeWalker<RuntimeException> walker = new QTreeWalker<>(deep, 2, (node, row, col, side) -> node);
+        try{
+            walker.run();
+            check(false, "a tree deeper than the image should be rejected");
+        }catch(IllegalStateException e){
+            // expected
+        }
+        checkStaysFailed(walker);
+    }
+
+    private static void testMalformedParse() throws Exception {
+        String allSplits = "4\n-1\n-1\n-1\n-1\n";
+        try{
+            new QTree().parseWalker(new BufferedReader(new StringReader(allSplits))).run();
+            check(false, "splitting a single pixel should fail");
+        }catch(IOException e){
+            // expected
+        }
+
+        String truncated = "4\n-1\n1\n2\n";
+        try{
+            new QTree().parseWalker(new BufferedReader(new StringReader(truncated))).run();
+            check(false, "a truncated file should fail");
+        }catch(IOException e){
+            // expected
+        }
+    }
+
+    private static void testFailedParseIsFinal() throws Exception {
+        String[] inputs = {"4\n-1\n-1\n1\n2\n3\n4\n", "4\n-1\nx\n1\n2\n3\n4\n"};
+        for(String input : inputs){
+            QTree tree = new QTree();
+            QTreeWalker<IOException> walker = tree.parseWalker(new BufferedReader(new StringReader(input)));
+            try{
+                walker.run();
+                check(false, "parsing should fail for " + input);
+            }catch(IOException | NumberFormatException e){
+                // expected
+            }
+            checkStaysFailed(walker);
+            check(tree.toString() == null, tree);
+        }
+    }
+
+    private static void testParseWalkerDoesNothingUntilRun() throws Exception {
+        QTree tree = QTree.rawFromFile(rawImageFile().getPath());
+        int[][] image = tree.getRawImage();
+        StringReader input = new StringReader("4\n-1\n1\n2\n3\n4\n");
+        QTreeWalker<IOException> walker = tree.parseWalker(new BufferedReader(input));
+        check(tree.getRawSize() == DIM*DIM, tree.getRawSize());
+        check(tree.getSideDim() == DIM, tree.getSideDim());
+        check(tree.getRawImage() == image, "the raw image should be untouched");
+        walker.run();
+        check(tree.getSideDim() == 2, tree.getSideDim());
+        check(tree.toString().equals("( 1 2 3 4 ) "), tree);
+
+        StringWriter output = new StringWriter();
+        BufferedWriter writer = new BufferedWriter(output);
+        QTreeWalker<IOException> write = tree.writeWalker(writer);
+        writer.flush();
+        check(output.toString().isEmpty(), output);
+        write.run();
+        writer.flush();
+        check(output.toString().equals("4\n-1\n1\n2\n3\n4\n"), output);
+    }
+
+    private static void testWriteBeforeCompress() throws Exception {
+        try{
+            new QTree().writeWalker(new BufferedWriter(new StringWriter()));
+            check(false, "writing before compressing should fail");
+        }catch(FourZipException e){
+            // expected
+        }
+    }
+}